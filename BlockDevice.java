@@ -0,0 +1,45 @@
+import java.nio.ByteBuffer;
+
+public interface BlockDevice extends AutoCloseable {
+    int getNumBlocks();
+
+    // Releases anything the device holds besides its blocks; a plain drive holds nothing.
+    default void close() {
+    }
+
+    byte[] readBlock(int blockNumber);
+
+    void writeBlock(int blockNumber, byte[] data);
+
+    // Copies a whole block into dst; dst must have at least BLOCK_SIZE bytes remaining.
+    void readBlockInto(int blockNumber, ByteBuffer dst);
+
+    void writeBlockFrom(int blockNumber, ByteBuffer src);
+
+    // Writes into part of a block; bytes outside [blockOffset, blockOffset + src.remaining()) are kept.
+    void writeBlockFrom(int blockNumber, int blockOffset, ByteBuffer src);
+
+    // Read-only view of the block's current contents, no copy.
+    ByteBuffer blockView(int blockNumber);
+
+    // Reads each listed block into dst, block i landing at offset i * BLOCK_SIZE.
+    default void readBlocks(int[] blockNumbers, byte[] dst) {
+        int blockSize = DiskDrive.getBlockSize();
+        ByteBuffer buffer = ByteBuffer.wrap(dst);
+        for (int i = 0; i < blockNumbers.length; i++) {
+            buffer.limit(i * blockSize + blockSize).position(i * blockSize);
+            readBlockInto(blockNumbers[i], buffer);
+        }
+    }
+
+    // Writes src across the listed blocks, zero-padding the last one if src runs short.
+    default void writeBlocks(int[] blockNumbers, byte[] src) {
+        int blockSize = DiskDrive.getBlockSize();
+        ByteBuffer buffer = ByteBuffer.wrap(src);
+        for (int i = 0; i < blockNumbers.length; i++) {
+            int offset = Math.min(i * blockSize, src.length);
+            buffer.limit(Math.min(offset + blockSize, src.length)).position(offset);
+            writeBlockFrom(blockNumbers[i], buffer);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 public class DiskAllocationSimulation {
     public static void main(String[] args) {
         String allocationMethod = "contiguous"; // Default allocation method
+        int driveCount = 1; // Default to a single drive
+        int stripeUnit = 1; // Blocks per stripe unit when striping
+        long accessTimeMicros = 0; // Modelled time per block access; 0 for instant drives
 
         if (args.length > 0) {
             if (args[0].equals("contiguous") || args[0].equals("chained") || args[0].equals("indexed")) {
@@ -10,9 +13,42 @@ public class DiskAllocationSimulation {
             }
         }
 
-        DiskDrive diskDrive = new DiskDrive();
-        FileSystem fileSystem = new FileSystem(diskDrive, allocationMethod);
+        BlockDevice disk;
+        try {
+            if (args.length > 1) {
+                driveCount = Integer.parseInt(args[1]);
+            }
+            if (args.length > 2) {
+                stripeUnit = Integer.parseInt(args[2]);
+            }
+            if (args.length > 3) {
+                accessTimeMicros = Long.parseLong(args[3]);
+            }
+            if (driveCount < 1) {
+                throw new IllegalArgumentException("Invalid drive count");
+            }
+            if (accessTimeMicros < 0 || accessTimeMicros > Long.MAX_VALUE / 1000) {
+                throw new IllegalArgumentException("Invalid access time");
+            }
+            disk = createDisk(driveCount, stripeUnit, accessTimeMicros * 1000);
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException
+            System.out.println("Invalid drive setup (" + e.getMessage() + "). Defaulting to a single instant drive.");
+            disk = new DiskDrive();
+        }
+        FileSystem fileSystem = new FileSystem(disk, allocationMethod);
         UserInterface ui = new UserInterface(fileSystem);
         ui.start();
+        disk.close();
+    }
+
+    private static BlockDevice createDisk(int driveCount, int stripeUnit, long accessTimeNanos) {
+        if (driveCount == 1) {
+            return new DiskDrive(accessTimeNanos);
+        }
+        DiskDrive[] drives = new DiskDrive[driveCount];
+        for (int i = 0; i < driveCount; i++) {
+            drives[i] = new DiskDrive(accessTimeNanos);
+        }
+        return new StripedVolume(drives, stripeUnit);
     }
 }
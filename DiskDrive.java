@@ -1,14 +1,36 @@
-public class DiskDrive {
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+public class DiskDrive implements BlockDevice {
     public final static int BLOCK_SIZE = 512;
     public final static int NUM_BLOCKS = 256;
-    private byte[][] blocks;
+    // All blocks live in one off-heap slab; block n starts at n * BLOCK_SIZE.
+    private final ByteBuffer blocks;
+    // Modelled service time of one block access; 0 means an ideal, instant drive.
+    private final long accessTimeNanos;
 
     public static int getBlockSize() {
         return BLOCK_SIZE;
     }
 
+    public int getNumBlocks() {
+        return NUM_BLOCKS;
+    }
+
+    public long getAccessTimeNanos() {
+        return accessTimeNanos;
+    }
+
     public DiskDrive() {
-        blocks = new byte[NUM_BLOCKS][BLOCK_SIZE];
+        this(0);
+    }
+
+    public DiskDrive(long accessTimeNanos) {
+        if(accessTimeNanos < 0) {
+            throw new IllegalArgumentException("Invalid access time");
+        }
+        this.accessTimeNanos = accessTimeNanos;
+        blocks = ByteBuffer.allocateDirect(NUM_BLOCKS * BLOCK_SIZE);
         // Initialize the FAT and bitmap.
         initializeFAT();
         initializeBitmap();
@@ -18,33 +40,103 @@ public class DiskDrive {
         // Initialize the first block with FAT data
         // For simplicity, can initially set it all to zero.
         for(int i = 0; i < BLOCK_SIZE; i++) {
-            blocks[0][i] = 0;
+            blocks.put(i, (byte) 0);
         }
     }
 
     private void initializeBitmap() {
         // Initialize the second block with bitmap data.
         // Initially, all blocks are free, except for the first two.
-        blocks[1][0] = (byte) 0b11000000; // First two blocks are used.
+        blocks.put(BLOCK_SIZE, (byte) 0b00000011); // First two blocks are used (bit n of a byte is block n).
         for(int i = 1; i < BLOCK_SIZE; i++) {
-            blocks[1][i] = 0;
+            blocks.put(BLOCK_SIZE + i, (byte) 0);
         }
     }
 
-    public byte[] readBlock(int blockNumber) {
-        if(blockNumber < 0 || blockNumber >= NUM_BLOCKS) {
-            throw new IllegalArgumentException("Invalid block number");
+    // Zeroes every block, FAT and bitmap included, for a volume that lays out its own.
+    public void erase() {
+        for(int i = 0; i < NUM_BLOCKS * BLOCK_SIZE; i++) {
+            blocks.put(i, (byte) 0);
         }
-        return blocks[blockNumber];
     }
 
-    public void writeBlock(int blockNumber, byte[] data) {
+    private int offsetOf(int blockNumber) {
         if(blockNumber < 0 || blockNumber >= NUM_BLOCKS) {
             throw new IllegalArgumentException("Invalid block number");
         }
+        return blockNumber * BLOCK_SIZE;
+    }
+
+    // Holds the caller for the drive's service time, as a real drive would.
+    private void simulateAccess() {
+        if(accessTimeNanos == 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + accessTimeNanos;
+        long remaining;
+        while((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    // Returns a copy of the block; callers cannot modify disk state through it.
+    public byte[] readBlock(int blockNumber) {
+        byte[] data = new byte[BLOCK_SIZE];
+        blocks.get(offsetOf(blockNumber), data);
+        simulateAccess();
+        return data;
+    }
+
+    public void writeBlock(int blockNumber, byte[] data) {
+        int offset = offsetOf(blockNumber);
         if(data.length != BLOCK_SIZE) {
             throw new IllegalArgumentException("Data size does not match block size");
         }
-        blocks[blockNumber] = data;
+        blocks.put(offset, data);
+        simulateAccess();
+    }
+
+    // Copies the whole block into dst, advancing its position.
+    public void readBlockInto(int blockNumber, ByteBuffer dst) {
+        int offset = offsetOf(blockNumber);
+        if(dst.remaining() < BLOCK_SIZE) {
+            throw new IllegalArgumentException("Destination smaller than block size");
+        }
+        dst.put(dst.position(), blocks, offset, BLOCK_SIZE);
+        dst.position(dst.position() + BLOCK_SIZE);
+        simulateAccess();
+    }
+
+    // Copies src.remaining() bytes into the block, zero-filling the rest, and advances src.
+    public void writeBlockFrom(int blockNumber, ByteBuffer src) {
+        int offset = offsetOf(blockNumber);
+        int length = src.remaining();
+        if(length > BLOCK_SIZE) {
+            throw new IllegalArgumentException("Data size exceeds block size");
+        }
+        blocks.put(offset, src, src.position(), length);
+        src.position(src.position() + length);
+        for(int i = length; i < BLOCK_SIZE; i++) {
+            blocks.put(offset + i, (byte) 0);
+        }
+        simulateAccess();
+    }
+
+    // Copies src.remaining() bytes into the block at blockOffset, leaving the rest of the block alone.
+    public void writeBlockFrom(int blockNumber, int blockOffset, ByteBuffer src) {
+        int offset = offsetOf(blockNumber);
+        int length = src.remaining();
+        if(blockOffset < 0 || blockOffset + length > BLOCK_SIZE) {
+            throw new IllegalArgumentException("Data does not fit in block");
+        }
+        blocks.put(offset + blockOffset, src, src.position(), length);
+        src.position(src.position() + length);
+        simulateAccess();
+    }
+
+    public ByteBuffer blockView(int blockNumber) {
+        ByteBuffer view = blocks.slice(offsetOf(blockNumber), BLOCK_SIZE).asReadOnlyBuffer();
+        simulateAccess();
+        return view;
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,5 @@
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -9,28 +10,93 @@ import java.util.Random;
 import java.util.stream.IntStream;
 
 public class FileSystem {
-    private DiskDrive diskDrive;
+    // Files up to this many bytes are kept in their file table entry and use no blocks
+    private static final int INLINE_LIMIT = 64;
+    // Unit in which file tails are packed into shared fragment blocks
+    private static final int FRAGMENT_SIZE = 32;
+    private static final int FRAGMENTS_PER_BLOCK = DiskDrive.BLOCK_SIZE / FRAGMENT_SIZE;
+    // Index blocks hold unsigned 16-bit block numbers, ended by block 0 (the FAT, never a data block)
+    private static final int INDEX_ENTRY_SIZE = 2;
+    private static final int INDEX_ENTRIES = DiskDrive.BLOCK_SIZE / INDEX_ENTRY_SIZE;
+    private static final int END_OF_INDEX = 0;
+    // Chained blocks end in an unsigned 16-bit pointer to the next block; block 0 ends the chain
+    private static final int CHAIN_PAYLOAD = DiskDrive.BLOCK_SIZE - 2;
+    private static final int END_OF_CHAIN = 0;
+
+    private BlockDevice diskDrive;
     private String allocationMethod;
     public Map<String, FileMetadata> fileTable;
+    // Fragment block number -> bitmask of its occupied fragments
+    private Map<Integer, Integer> fragmentBlocks;
 
-    public FileSystem(DiskDrive diskDrive, String allocationMethod) {
+    public FileSystem(BlockDevice diskDrive, String allocationMethod) {
         this.diskDrive = diskDrive;
         this.allocationMethod = allocationMethod;
         this.fileTable = new HashMap<>();
+        this.fragmentBlocks = new HashMap<>();
     }
 
     public class FileMetadata {
         private int startBlock;
         private int length;
         private int indexBlock;
+        private int size;
+        private int tailBlock;
+        private int tailOffset;
+        private int tailLength;
+        private byte[] inlineData;
 
         public FileMetadata(int startBlock, int length) {
             this.startBlock = startBlock;
             this.length = length;
+            this.indexBlock = -1;
         }
-        
-        public FileMetadata(int indexBlock) {
+
+        public FileMetadata(int startBlock, int length, int size) {
+            this(startBlock, length);
+            this.size = size;
+        }
+
+        // Chained or indexed file whose last partial block is packed at tailOffset in tailBlock.
+        // startBlock and indexBlock are -1 when the file has no chain or no index.
+        public FileMetadata(int startBlock, int indexBlock, int size, int tailBlock, int tailOffset, int tailLength) {
+            this.startBlock = startBlock;
             this.indexBlock = indexBlock;
+            this.size = size;
+            this.tailBlock = tailBlock;
+            this.tailOffset = tailOffset;
+            this.tailLength = tailLength;
+        }
+
+        public FileMetadata(byte[] inlineData) {
+            this.inlineData = inlineData;
+            this.size = inlineData.length;
+            this.startBlock = -1;
+            this.indexBlock = -1;
+        }
+
+        public boolean isInline() {
+            return inlineData != null;
+        }
+
+        public byte[] getInlineData() {
+            return inlineData;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getTailBlock() {
+            return tailBlock;
+        }
+
+        public int getTailOffset() {
+            return tailOffset;
+        }
+
+        public int getTailLength() {
+            return tailLength;
         }
 
         public int getIndexBlock() {
@@ -66,6 +132,10 @@ public class FileSystem {
         if (data.length > 10 * DiskDrive.getBlockSize()) {
             throw new IllegalArgumentException("File size exceeds maximum limit");
         }
+        if (data.length <= INLINE_LIMIT) {
+            createFileInline(fileName, data);
+            return;
+        }
 
         List<Integer> freeBlocks = findFreeBlocksChained(data.length);
         if (freeBlocks.isEmpty()) {
@@ -73,42 +143,98 @@ public class FileSystem {
         }
 
         chainAndWriteBlocks(freeBlocks, data);
-        updateFATForChained(fileName, freeBlocks.get(0));
+        updateFATForChained(fileName, freeBlocks.get(0), data.length);
         updateBitmap(convertListToArray(freeBlocks), true); // Convert to array before updating bitmap
     }
 
     private void createFileChained(String fileName, byte[] data) {
-        List<Integer> freeBlocks = findFreeBlocksChained(data.length);
-        if (freeBlocks.isEmpty()) {
-            throw new IllegalStateException("Not enough space");
+        if (data.length <= INLINE_LIMIT) {
+            createFileInline(fileName, data);
+            return;
+        }
+        // The chain carries only full payloads; the last block holds no pointer worth keeping,
+        // so whatever is left over goes into a fragment block instead
+        int fullBytes = data.length / CHAIN_PAYLOAD * CHAIN_PAYLOAD;
+        int tailLength = data.length - fullBytes;
+
+        List<Integer> freeBlocks = Collections.emptyList();
+        if (fullBytes > 0) {
+            freeBlocks = findFreeBlocksChained(fullBytes);
+            if (freeBlocks.isEmpty()) {
+                throw new IllegalStateException("Not enough space");
+            }
+            updateBitmap(convertListToArray(freeBlocks), true);
+        }
+
+        int tailAddress = 0;
+        if (tailLength > 0) {
+            tailAddress = packTail(data, fullBytes, convertListToArray(freeBlocks));
         }
 
         chainAndWriteBlocks(freeBlocks, data);
-        updateFATForChained(fileName, freeBlocks.get(0));
-        updateBitmap(convertListToArray(freeBlocks), true);
+        int startBlock = freeBlocks.isEmpty() ? -1 : freeBlocks.get(0);
+        fileTable.put(fileName, new FileMetadata(startBlock, -1, data.length,
+                tailAddress / DiskDrive.getBlockSize(), tailAddress % DiskDrive.getBlockSize(), tailLength));
     }
 
     private void createFileIndexed(String fileName, byte[] data) {
-        // Find a free block for the index
-        int indexBlock = findFreeIndexBlock();
-        if (indexBlock == -1) {
-            throw new IllegalStateException("No free block for index");
+        if (data.length <= INLINE_LIMIT) {
+            createFileInline(fileName, data);
+            return;
+        }
+        int fullBytes = data.length / DiskDrive.getBlockSize() * DiskDrive.getBlockSize();
+        int tailLength = data.length - fullBytes;
+    
+        // Files smaller than a block need no index; all their bytes go into a fragment block
+        int indexBlock = -1;
+        List<Integer> dataBlocks = Collections.emptyList();
+        if (fullBytes > 0) {
+            if (fullBytes / DiskDrive.getBlockSize() > INDEX_ENTRIES) {
+                throw new IllegalArgumentException("File size exceeds maximum limit");
+            }
+    
+            // Find a free block for the index
+            indexBlock = findFreeIndexBlock();
+            if (indexBlock == -1) {
+                throw new IllegalStateException("No free block for index");
+            }
+            updateBitmap(new int[] { indexBlock }, true); // Reserve it so it is not handed out as a data block
+    
+            // Find free blocks for the whole blocks of file data
+            dataBlocks = findFreeDataBlocks(fullBytes);
+            if (dataBlocks.size() * DiskDrive.getBlockSize() < fullBytes) {
+                updateBitmap(new int[] { indexBlock }, false);
+                throw new IllegalStateException("Not enough space for file data");
+            }
+            updateBitmap(convertListToArray(dataBlocks), true);
         }
     
-        // Find free blocks for the file data
-        List<Integer> dataBlocks = findFreeDataBlocks(data.length);
-        if (dataBlocks.size() * DiskDrive.getBlockSize() < data.length) {
-            throw new IllegalStateException("Not enough space for file data");
+        // Pack the partial last block into a shared fragment block
+        int tailAddress = 0;
+        if (tailLength > 0) {
+            int[] reserved = new int[0];
+            if (indexBlock != -1) {
+                reserved = Arrays.copyOf(convertListToArray(dataBlocks), dataBlocks.size() + 1);
+                reserved[dataBlocks.size()] = indexBlock;
+            }
+            tailAddress = packTail(data, fullBytes, reserved);
         }
     
-        // Write index block with the data blocks information
-        writeIndexBlock(indexBlock, dataBlocks);
+        if (indexBlock != -1) {
+            // Write index block with the data blocks information
+            writeIndexBlock(indexBlock, dataBlocks);
     
-        // Write file data to the data blocks
-        writeDataToBlocks(dataBlocks, data);
+            // Write the whole blocks of file data
+            writeDataToBlocks(dataBlocks, data);
+        }
     
         // Update file table
-        fileTable.put(fileName, new FileMetadata(indexBlock));
+        fileTable.put(fileName, new FileMetadata(-1, indexBlock, data.length,
+                tailAddress / DiskDrive.getBlockSize(), tailAddress % DiskDrive.getBlockSize(), tailLength));
+    }
+
+    private void createFileInline(String fileName, byte[] data) {
+        fileTable.put(fileName, new FileMetadata(Arrays.copyOf(data, data.length)));
     }
     
     
@@ -122,6 +248,9 @@ public class FileSystem {
         if (metadata == null) {
         throw new IllegalArgumentException("File not found");
         }
+        if (metadata.isInline()) {
+            return Arrays.copyOf(metadata.getInlineData(), metadata.getSize());
+        }
 
         if (allocationMethod.equals("contiguous")) {
             return readFileContiguous(metadata);
@@ -141,7 +270,7 @@ public class FileSystem {
     
         for (int i = 0; i < length; i++) {
             int blockNumber = startBlock + i;
-            if (blockNumber >= DiskDrive.NUM_BLOCKS) {
+            if (blockNumber >= diskDrive.getNumBlocks()) {
                 throw new IllegalStateException("Invalid block number: " + blockNumber);
             }
             byte[] blockData = diskDrive.readBlock(blockNumber);
@@ -153,33 +282,43 @@ public class FileSystem {
     
 
     private byte[] readFileChained(FileMetadata metadata) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] data = new byte[metadata.getSize()];
+        int dataIndex = 0;
         int currentBlock = metadata.getStartBlock();
+        ByteBuffer blockBuffer = ByteBuffer.allocate(DiskDrive.getBlockSize()); // Reused for every block in the chain
 
-        while (currentBlock != -1) { // Assuming -1 indicates the end of the chain
-            byte[] blockData = diskDrive.readBlock(currentBlock);
-            // Assuming the last byte of each block stores the next block's index
-            int nextBlock = blockData[DiskDrive.getBlockSize() - 1];
-            outputStream.write(blockData, 0, DiskDrive.getBlockSize() - 1); // Exclude the last byte
-            currentBlock = nextBlock;
+        while (currentBlock != -1) { // -1 indicates the end of the chain
+            blockBuffer.clear();
+            diskDrive.readBlockInto(currentBlock, blockBuffer);
+            blockBuffer.get(0, data, dataIndex, CHAIN_PAYLOAD); // Exclude the next block pointer
+            dataIndex += CHAIN_PAYLOAD;
+            currentBlock = nextBlockInChain(blockBuffer);
         }
 
-        return outputStream.toByteArray();
+        readTail(metadata, data);
+        return data;
     }
 
     private byte[] readFileIndexed(FileMetadata metadata) {
+        byte[] data = new byte[metadata.getSize()];
         int indexBlock = metadata.getIndexBlock();
-        byte[] indexData = diskDrive.readBlock(indexBlock);
-    
-        ByteArrayOutputStream dataStream = new ByteArrayOutputStream();
-        for (int i = 0; i < indexData.length; i++) {
-            if (indexData[i] == -1) break; // Assuming -1 indicates no more data blocks
+        if (indexBlock != -1) {
+            int[] dataBlocks = readIndexEntries(indexBlock);
     
-            byte[] dataBlock = diskDrive.readBlock(indexData[i]);
-            dataStream.write(dataBlock, 0, DiskDrive.getBlockSize());
+            // Fetch all data blocks in one request so a striped volume can read them in parallel
+            diskDrive.readBlocks(dataBlocks, data);
         }
     
-        return dataStream.toByteArray();
+        readTail(metadata, data);
+        return data;
+    }
+
+    // The tail, if any, sits in a fragment block shared with other files and ends the file's data
+    private void readTail(FileMetadata metadata, byte[] data) {
+        int tailLength = metadata.getTailLength();
+        if (tailLength > 0) {
+            diskDrive.blockView(metadata.getTailBlock()).get(metadata.getTailOffset(), data, data.length - tailLength, tailLength);
+        }
     }
     
 
@@ -210,13 +349,13 @@ public class FileSystem {
     }
     
     private void updateFileChained(String fileName, byte[] newData) {
-        deleteFileChained(fileTable.get(fileName));
+        deleteFileChained(fileName);
         createFileChained(fileName, newData);
     }
 
     private void updateFileIndexed(String fileName, byte[] newData) {
         // Delete the existing file
-        deleteFileIndexed(fileTable.get(fileName));
+        deleteFileIndexed(fileName);
     
         // Create a new file with the updated data
         createFileIndexed(fileName, newData);
@@ -228,13 +367,17 @@ public class FileSystem {
         if (metadata == null) {
             throw new IllegalArgumentException("File not found");
         }
+        if (metadata.isInline()) {
+            fileTable.remove(fileName); // Nothing on disk to free
+            return;
+        }
     
         if (allocationMethod.equals("contiguous")) {
             deleteFileContiguous(fileName);
         } else if (allocationMethod.equals("chained")) {
-            deleteFileChained(metadata);
+            deleteFileChained(fileName);
         } else if (allocationMethod.equals("indexed")) {
-            deleteFileIndexed(metadata);
+            deleteFileIndexed(fileName);
         } else {
             throw new IllegalStateException("Unknown allocation method: " + allocationMethod);
         }
@@ -259,35 +402,55 @@ public class FileSystem {
     }
     
     
-    private void deleteFileChained(FileMetadata metadata) {
+    private void deleteFileChained(String fileName) {
+        FileMetadata metadata = fileTable.get(fileName);
+        if (metadata == null) {
+            throw new IllegalArgumentException("File not found");
+        }
+        if (metadata.isInline()) {
+            fileTable.remove(fileName); // Nothing on disk to free
+            return;
+        }
         int currentBlock = metadata.getStartBlock();
         List<Integer> blocksToFree = new ArrayList<>();
+        ByteBuffer blockBuffer = ByteBuffer.allocate(DiskDrive.getBlockSize()); // Reused for every block in the chain
     
-        while (currentBlock != -1) { // Assuming -1 indicates the end of the chain
-            byte[] blockData = diskDrive.readBlock(currentBlock);
+        while (currentBlock != -1) { // -1 indicates the end of the chain
             blocksToFree.add(currentBlock);
-            currentBlock = blockData[DiskDrive.getBlockSize() - 1]; // Get the next block index
+            blockBuffer.clear();
+            diskDrive.readBlockInto(currentBlock, blockBuffer);
+            currentBlock = nextBlockInChain(blockBuffer);
         }
     
-        updateBitmap(convertListToArray(blocksToFree), false);
-        fileTable.remove(metadata); // Remove the file entry from the FAT
+        if (!blocksToFree.isEmpty()) {
+            updateBitmap(convertListToArray(blocksToFree), false);
+        }
+        releaseTail(metadata);
+        fileTable.remove(fileName); // Remove the file entry from the FAT
     }
 
-    private void deleteFileIndexed(FileMetadata metadata) {
+    private void deleteFileIndexed(String fileName) {
+        FileMetadata metadata = fileTable.get(fileName);
+        if (metadata == null) {
+            throw new IllegalArgumentException("File not found");
+        }
+        if (metadata.isInline()) {
+            fileTable.remove(fileName); // Nothing on disk to free
+            return;
+        }
         int indexBlock = metadata.getIndexBlock();
-        byte[] indexData = diskDrive.readBlock(indexBlock);
-    
-        // Free data blocks
-        for (int i = 0; i < indexData.length; i++) {
-            if (indexData[i] == -1) break; // Assuming -1 indicates no more data blocks
-            markBlockAsFree(indexData[i]);
+        if (indexBlock != -1) {
+            // Free the data blocks and the index block in a single bitmap update
+            int[] dataBlocks = readIndexEntries(indexBlock);
+            int[] blocksToFree = Arrays.copyOf(dataBlocks, dataBlocks.length + 1);
+            blocksToFree[dataBlocks.length] = indexBlock;
+            updateBitmap(blocksToFree, false);
         }
     
-        // Free index block
-        markBlockAsFree(indexBlock);
+        releaseTail(metadata);
     
         // Update file table
-        fileTable.remove(metadata);
+        fileTable.remove(fileName);
     }
     
     private void markBlockAsFree(int blockNumber) {
@@ -333,35 +496,115 @@ public class FileSystem {
     }
 
     private void writeDataToBlocks(List<Integer> blocks, byte[] data) {
-        int bytesPerBlock = DiskDrive.getBlockSize();
-        int dataIndex = 0;
-    
-        for (int blockNumber : blocks) {
-            byte[] blockData = new byte[bytesPerBlock];
-            int length = Math.min(dataIndex + bytesPerBlock, data.length) - dataIndex;
-            System.arraycopy(data, dataIndex, blockData, 0, length);
+        // Only as many blocks as the data needs; a striped volume writes them in parallel
+        int requiredBlocks = (int) Math.ceil((double) data.length / DiskDrive.getBlockSize());
+        int[] blockNumbers = convertListToArray(blocks.subList(0, Math.min(requiredBlocks, blocks.size())));
+        diskDrive.writeBlocks(blockNumbers, data);
+    }
+
+    // Packs data from dataOffset on into a fragment block and returns its byte address. If no fragment
+    // block has room, the blocks already reserved for the file are released and the create fails.
+    private int packTail(byte[] data, int dataOffset, int[] reservedBlocks) {
+        int tailLength = data.length - dataOffset;
+        int tailAddress = allocateFragment(tailLength);
+        if (tailAddress == -1) {
+            if (reservedBlocks.length > 0) {
+                updateBitmap(reservedBlocks, false);
+            }
+            throw new IllegalStateException("Not enough space for file data");
+        }
+        writeFragment(tailAddress / DiskDrive.getBlockSize(), tailAddress % DiskDrive.getBlockSize(), data, dataOffset, tailLength);
+        return tailAddress;
+    }
+
+    private void releaseTail(FileMetadata metadata) {
+        if (metadata.getTailLength() > 0) {
+            freeFragment(metadata.getTailBlock(), metadata.getTailOffset(), metadata.getTailLength());
+        }
+    }
+
+    // Reserves room for length bytes in a fragment block; returns its byte address (block * BLOCK_SIZE + offset) or -1.
+    private int allocateFragment(int length) {
+        int fragments = (length + FRAGMENT_SIZE - 1) / FRAGMENT_SIZE;
+        for (Map.Entry<Integer, Integer> entry : fragmentBlocks.entrySet()) {
+            int first = findFreeFragments(entry.getValue(), fragments);
+            if (first != -1) {
+                entry.setValue(entry.getValue() | fragmentMask(first, fragments));
+                return entry.getKey() * DiskDrive.getBlockSize() + first * FRAGMENT_SIZE;
+            }
+        }
     
-            diskDrive.writeBlock(blockNumber, blockData);
-            dataIndex += length;
-            if (dataIndex >= data.length) {
-                break;
+        // No existing fragment block has room, so start a new one
+        int block = findFreeIndexBlock();
+        if (block == -1) {
+            return -1;
+        }
+        updateBitmap(new int[] { block }, true);
+        fragmentBlocks.put(block, fragmentMask(0, fragments));
+        return block * DiskDrive.getBlockSize();
+    }
+
+    private int findFreeFragments(int occupied, int fragments) {
+        for (int first = 0; first + fragments <= FRAGMENTS_PER_BLOCK; first++) {
+            if ((occupied & fragmentMask(first, fragments)) == 0) {
+                return first;
             }
         }
+        return -1;
+    }
+
+    private int fragmentMask(int first, int fragments) {
+        return ((1 << fragments) - 1) << first;
+    }
+
+    private void freeFragment(int block, int offset, int length) {
+        int fragments = (length + FRAGMENT_SIZE - 1) / FRAGMENT_SIZE;
+        int mask = fragmentMask(offset / FRAGMENT_SIZE, fragments);
+        Integer tracked = fragmentBlocks.get(block);
+        if (tracked == null || (tracked & mask) != mask) {
+            // Freeing fragments that are not in use would hand another file's tail out again
+            throw new IllegalStateException("Fragment not in use: block " + block + ", offset " + offset);
+        }
+        int occupied = tracked & ~mask;
+        if (occupied == 0) {
+            // Last tail in this block is gone; hand the block back
+            fragmentBlocks.remove(block);
+            markBlockAsFree(block);
+        } else {
+            fragmentBlocks.put(block, occupied);
+        }
+    }
+
+    private void writeFragment(int block, int offset, byte[] data, int dataOffset, int length) {
+        // Writes only the tail's bytes; the other files sharing the block are left untouched
+        diskDrive.writeBlockFrom(block, offset, ByteBuffer.wrap(data, dataOffset, length));
     }
 
     private void writeIndexBlock(int indexBlock, List<Integer> dataBlocks) {
-        byte[] indexData = new byte[DiskDrive.getBlockSize()];
-        int i = 0;
+        if (dataBlocks.size() > INDEX_ENTRIES) {
+            throw new IllegalArgumentException("Too many data blocks for one index block");
+        }
+        // A fresh buffer is all zeroes, so the entries after the last block already read as END_OF_INDEX
+        ByteBuffer indexData = ByteBuffer.allocate(DiskDrive.getBlockSize());
         for (int block : dataBlocks) {
-            indexData[i++] = (byte) block;
-            if (i >= DiskDrive.getBlockSize()) {
-                break; // Prevent exceeding the block size
-            }
+            indexData.putShort((short) block);
         }
-        while (i < DiskDrive.getBlockSize()) {
-            indexData[i++] = (byte) -1; // Fill the rest with -1 to indicate no more data blocks
+        indexData.clear();
+        diskDrive.writeBlockFrom(indexBlock, indexData);
+    }
+
+    private int[] readIndexEntries(int indexBlock) {
+        ByteBuffer indexData = diskDrive.blockView(indexBlock);
+        int blockCount = 0;
+        while (blockCount < INDEX_ENTRIES
+                && (indexData.getShort(blockCount * INDEX_ENTRY_SIZE) & 0xFFFF) != END_OF_INDEX) {
+            blockCount++;
         }
-        diskDrive.writeBlock(indexBlock, indexData);
+        int[] dataBlocks = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            dataBlocks[i] = indexData.getShort(i * INDEX_ENTRY_SIZE) & 0xFFFF;
+        }
+        return dataBlocks;
     }
     
     
@@ -391,7 +634,7 @@ public class FileSystem {
 
     public byte[] readDiskBlock(int blockNumber) {
         // Validate block number
-        if (blockNumber < 0 || blockNumber >= DiskDrive.NUM_BLOCKS) {
+        if (blockNumber < 0 || blockNumber >= diskDrive.getNumBlocks()) {
             throw new IllegalArgumentException("Invalid block number");
         }
     
@@ -400,13 +643,13 @@ public class FileSystem {
     }
     
     private List<Integer> findFreeBlocksChained(int dataSize) {
-        int requiredBlocks = (int) Math.ceil((double) dataSize / DiskDrive.getBlockSize());
+        int requiredBlocks = (int) Math.ceil((double) dataSize / CHAIN_PAYLOAD);
         List<Integer> freeBlocks = new ArrayList<>();
         List<Integer> potentialBlocks = new ArrayList<>();
     
         // Populate the list with indices of all free blocks
         byte[] bitmap = diskDrive.readBlock(1); // Assuming bitmap is stored in block 1
-        for (int i = 0; i < DiskDrive.NUM_BLOCKS; i++) {
+        for (int i = 0; i < diskDrive.getNumBlocks(); i++) {
             if (isBlockFree(bitmap, i)) {
                 potentialBlocks.add(i);
             }
@@ -426,31 +669,44 @@ public class FileSystem {
     }
     
     
+    // Next block of a chain, read from the pointer at the end of a block; -1 at the end of the chain
+    private int nextBlockInChain(ByteBuffer blockBuffer) {
+        int nextBlock = blockBuffer.getShort(CHAIN_PAYLOAD) & 0xFFFF;
+        return nextBlock == END_OF_CHAIN ? -1 : nextBlock;
+    }
+
     private void chainAndWriteBlocks(List<Integer> blocks, byte[] data) {
-        int bytesPerBlock = DiskDrive.getBlockSize() - 1; // Last byte for next block reference
+        int bytesPerBlock = CHAIN_PAYLOAD; // Last two bytes for next block reference
         int dataIndex = 0;
+        ByteBuffer source = ByteBuffer.wrap(data);
+        ByteBuffer blockData = ByteBuffer.allocate(DiskDrive.getBlockSize()); // Reused for every block
     
         for (int i = 0; i < blocks.size(); i++) {
-            byte[] blockData = new byte[DiskDrive.getBlockSize()];
-            int nextBlock = (i == blocks.size() - 1) ? -1 : blocks.get(i + 1); // -1 indicates the end
+            int nextBlock = (i == blocks.size() - 1) ? END_OF_CHAIN : blocks.get(i + 1);
     
             int length = Math.min(dataIndex + bytesPerBlock, data.length) - dataIndex;
-            System.arraycopy(data, dataIndex, blockData, 0, length);
-            blockData[bytesPerBlock] = (byte) nextBlock; // Set next block reference
+            source.limit(dataIndex + length).position(dataIndex);
+            blockData.clear();
+            blockData.put(source);
+            while (blockData.position() < bytesPerBlock) {
+                blockData.put((byte) 0); // Clear whatever the previous block left behind
+            }
+            blockData.putShort((short) nextBlock); // Set next block reference
+            blockData.flip();
     
-            diskDrive.writeBlock(blocks.get(i), blockData);
+            diskDrive.writeBlockFrom(blocks.get(i), blockData);
             dataIndex += length;
         }
     }
     
     
-    private void updateFATForChained(String fileName, int startBlock) {
-        fileTable.put(fileName, new FileMetadata(startBlock, -1)); // Length might not be needed for chained
+    private void updateFATForChained(String fileName, int startBlock, int size) {
+        fileTable.put(fileName, new FileMetadata(startBlock, -1, size)); // Length might not be needed for chained
     }
 
     private int findFreeIndexBlock() {
         byte[] bitmap = diskDrive.readBlock(1); // Assuming bitmap is stored in block 1
-        for (int i = 0; i < DiskDrive.NUM_BLOCKS; i++) {
+        for (int i = 0; i < diskDrive.getNumBlocks(); i++) {
             if (isBlockFree(bitmap, i)) {
                 return i;
             }
@@ -464,7 +720,7 @@ public class FileSystem {
         List<Integer> freeBlocks = new ArrayList<>();
         byte[] bitmap = diskDrive.readBlock(1); // Assuming bitmap is stored in block 1
     
-        for (int i = 0; i < DiskDrive.NUM_BLOCKS && freeBlocks.size() < requiredBlocks; i++) {
+        for (int i = 0; i < diskDrive.getNumBlocks() && freeBlocks.size() < requiredBlocks; i++) {
             if (isBlockFree(bitmap, i)) {
                 freeBlocks.add(i);
             }
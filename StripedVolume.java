@@ -0,0 +1,217 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class StripedVolume implements BlockDevice {
+    // Rough cost of handing a request to the workers and waiting on them. Fanning out
+    // only pays when it overlaps more drive time than this.
+    private static final long FAN_OUT_COST_NANOS = 20_000;
+
+    private DiskDrive[] drives;
+    private int stripeUnit; // Blocks per stripe unit
+    private ExecutorService[] executors; // One worker per drive
+
+    public StripedVolume(DiskDrive[] drives, int stripeUnit) {
+        if (drives.length == 0) {
+            throw new IllegalArgumentException("At least one drive is required");
+        }
+        if (stripeUnit <= 0 || DiskDrive.NUM_BLOCKS % stripeUnit != 0) {
+            throw new IllegalArgumentException("Invalid stripe unit");
+        }
+        // The free space bitmap is a single block, one bit per block
+        if (drives.length * DiskDrive.NUM_BLOCKS > DiskDrive.BLOCK_SIZE * 8) {
+            throw new IllegalArgumentException("Too many drives for one bitmap block");
+        }
+        this.drives = drives;
+        this.stripeUnit = stripeUnit;
+        // One worker per drive so that each drive services its own share of a request.
+        this.executors = new ExecutorService[drives.length];
+        for (int d = 0; d < drives.length; d++) {
+            String name = "stripe-io-" + d;
+            executors[d] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        // The members' own FAT and bitmap blocks are ordinary data blocks in the volume, so start them
+        // blank. Logical blocks 0 and 1 may land on different drives, so lay out the FAT and bitmap here.
+        for (DiskDrive drive : drives) {
+            drive.erase();
+        }
+        initializeFAT();
+        initializeBitmap();
+    }
+
+    private void initializeFAT() {
+        writeBlock(0, new byte[DiskDrive.BLOCK_SIZE]);
+    }
+
+    private void initializeBitmap() {
+        byte[] bitmap = new byte[DiskDrive.BLOCK_SIZE];
+        bitmap[0] = (byte) 0b00000011; // First two blocks are used (bit n of a byte is block n).
+        writeBlock(1, bitmap);
+    }
+
+    public int getNumBlocks() {
+        return drives.length * DiskDrive.NUM_BLOCKS;
+    }
+
+    // Stops the drive workers; the volume must not be used afterwards.
+    public void close() {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+    public int getDriveCount() {
+        return drives.length;
+    }
+
+    private int driveFor(int blockNumber) {
+        return (blockNumber / stripeUnit) % drives.length;
+    }
+
+    private int physicalBlockFor(int blockNumber) {
+        int stripe = blockNumber / (stripeUnit * drives.length);
+        return stripe * stripeUnit + blockNumber % stripeUnit;
+    }
+
+    private void checkBlockNumber(int blockNumber) {
+        if (blockNumber < 0 || blockNumber >= getNumBlocks()) {
+            throw new IllegalArgumentException("Invalid block number");
+        }
+    }
+
+    public byte[] readBlock(int blockNumber) {
+        checkBlockNumber(blockNumber);
+        return drives[driveFor(blockNumber)].readBlock(physicalBlockFor(blockNumber));
+    }
+
+    public void writeBlock(int blockNumber, byte[] data) {
+        checkBlockNumber(blockNumber);
+        drives[driveFor(blockNumber)].writeBlock(physicalBlockFor(blockNumber), data);
+    }
+
+    public void readBlockInto(int blockNumber, ByteBuffer dst) {
+        checkBlockNumber(blockNumber);
+        drives[driveFor(blockNumber)].readBlockInto(physicalBlockFor(blockNumber), dst);
+    }
+
+    public void writeBlockFrom(int blockNumber, ByteBuffer src) {
+        checkBlockNumber(blockNumber);
+        drives[driveFor(blockNumber)].writeBlockFrom(physicalBlockFor(blockNumber), src);
+    }
+
+    public void writeBlockFrom(int blockNumber, int blockOffset, ByteBuffer src) {
+        checkBlockNumber(blockNumber);
+        drives[driveFor(blockNumber)].writeBlockFrom(physicalBlockFor(blockNumber), blockOffset, src);
+    }
+
+    public ByteBuffer blockView(int blockNumber) {
+        checkBlockNumber(blockNumber);
+        return drives[driveFor(blockNumber)].blockView(physicalBlockFor(blockNumber));
+    }
+
+    // Drive time saved by running each drive's share in parallel rather than one after another.
+    private long overlappedNanos(int[] blockNumbers) {
+        long[] perDrive = new long[drives.length];
+        long serial = 0;
+        for (int blockNumber : blockNumbers) {
+            checkBlockNumber(blockNumber);
+            int d = driveFor(blockNumber);
+            perDrive[d] += drives[d].getAccessTimeNanos();
+            serial += drives[d].getAccessTimeNanos();
+        }
+        long longest = 0;
+        for (long nanos : perDrive) {
+            longest = Math.max(longest, nanos);
+        }
+        return serial - longest;
+    }
+
+    // What a multi-block request does to one block: position is the block's place in the request,
+    // and buffer wraps the caller's array (one buffer per worker).
+    private interface BlockOperation {
+        void apply(DiskDrive drive, int physicalBlock, ByteBuffer buffer, int position);
+    }
+
+    public void readBlocks(int[] blockNumbers, byte[] dst) {
+        int blockSize = DiskDrive.getBlockSize();
+        forEachBlock(blockNumbers, dst, (drive, physicalBlock, buffer, i) -> {
+            buffer.limit(i * blockSize + blockSize).position(i * blockSize);
+            drive.readBlockInto(physicalBlock, buffer);
+        });
+    }
+
+    public void writeBlocks(int[] blockNumbers, byte[] src) {
+        int blockSize = DiskDrive.getBlockSize();
+        forEachBlock(blockNumbers, src, (drive, physicalBlock, buffer, i) -> {
+            int offset = Math.min(i * blockSize, src.length);
+            buffer.limit(Math.min(offset + blockSize, src.length)).position(offset);
+            drive.writeBlockFrom(physicalBlock, buffer);
+        });
+    }
+
+    // Runs operation on every block of a request, spread over the drive workers when that saves time.
+    private void forEachBlock(int[] blockNumbers, byte[] data, BlockOperation operation) {
+        if (overlappedNanos(blockNumbers) <= FAN_OUT_COST_NANOS) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            for (int i = 0; i < blockNumbers.length; i++) {
+                operation.apply(drives[driveFor(blockNumbers[i])], physicalBlockFor(blockNumbers[i]), buffer, i);
+            }
+            return;
+        }
+        List<List<Integer>> perDrive = splitByDrive(blockNumbers);
+        List<Future<?>> pending = new ArrayList<>();
+        for (int d = 0; d < drives.length; d++) {
+            List<Integer> positions = perDrive.get(d);
+            if (positions.isEmpty()) {
+                continue;
+            }
+            DiskDrive drive = drives[d];
+            pending.add(executors[d].submit(() -> {
+                // Each worker gets its own cursor over data; the regions it touches are disjoint
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                for (int i : positions) {
+                    operation.apply(drive, physicalBlockFor(blockNumbers[i]), buffer, i);
+                }
+            }));
+        }
+        awaitAll(pending);
+    }
+
+    // Groups request positions by the drive that holds each block.
+    private List<List<Integer>> splitByDrive(int[] blockNumbers) {
+        List<List<Integer>> perDrive = new ArrayList<>();
+        for (int d = 0; d < drives.length; d++) {
+            perDrive.add(new ArrayList<>());
+        }
+        for (int i = 0; i < blockNumbers.length; i++) {
+            checkBlockNumber(blockNumbers[i]);
+            perDrive.get(driveFor(blockNumbers[i])).add(i);
+        }
+        return perDrive;
+    }
+
+    private void awaitAll(List<Future<?>> pending) {
+        try {
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during striped I/O", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Striped I/O failed", cause);
+        }
+    }
+}
@@ -117,13 +117,31 @@ public class UserInterface {
         }
 
         System.out.println("File Allocation Table:");
-        System.out.println("FileName\tStartBlock\tLength");
+        System.out.println("FileName\tSize\tStorage\t\tTail");
         for (Map.Entry<String, FileSystem.FileMetadata> entry : fileTable.entrySet()) {
             FileSystem.FileMetadata metadata = entry.getValue();
-            System.out.println(entry.getKey() + "\t\t" + metadata.getStartBlock() + "\t\t" + metadata.getLength());
+            System.out.println(entry.getKey() + "\t\t" + metadata.getSize() + "\t" + describeStorage(metadata) + "\t" + describeTail(metadata));
         }
 }
 
+    private String describeStorage(FileSystem.FileMetadata metadata) {
+        if (metadata.isInline()) {
+            return "inline\t";
+        } else if (metadata.getIndexBlock() != -1) {
+            return "index " + metadata.getIndexBlock() + "\t";
+        } else if (metadata.getStartBlock() != -1) {
+            return "start " + metadata.getStartBlock() + "\t";
+        }
+        return "tail only";
+    }
+
+    private String describeTail(FileSystem.FileMetadata metadata) {
+        if (metadata.getTailLength() == 0) {
+            return "-";
+        }
+        return "block " + metadata.getTailBlock() + " @ " + metadata.getTailOffset() + " (" + metadata.getTailLength() + " bytes)";
+    }
+
     
     private void displayBitmap() {
         byte[] bitmap = fileSystem.getBitmap();